@@ -1,14 +1,21 @@
 package nomisvai;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.cbor.JacksonCBORProvider;
+import com.fasterxml.jackson.jaxrs.smile.JacksonSmileProvider;
 import io.dropwizard.Application;
 import io.dropwizard.db.ManagedDataSource;
+import io.dropwizard.jackson.Jackson;
 import io.dropwizard.jdbi3.JdbiFactory;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import java.security.Security;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import liquibase.Contexts;
 import liquibase.Liquibase;
 import liquibase.database.Database;
@@ -55,6 +62,19 @@ public class SampleServiceApplication extends Application<SampleServiceConfigura
         log.info("Registering User Resource");
         // Register the user resource class
         environment.jersey().register(new UserResource(jdbi));
+
+        // Binary encodings negotiated through the Accept header, json stays the default
+        binaryEncodingProviders().forEach(environment.jersey()::register);
+    }
+
+    /**
+     * Jersey providers for the smile and cbor encodings. Their mappers are configured like the
+     * Dropwizard json one so all encodings behave the same.
+     */
+    public static List<Object> binaryEncodingProviders() {
+        return Arrays.asList(
+                new JacksonSmileProvider(Jackson.newObjectMapper(new SmileFactory())),
+                new JacksonCBORProvider(Jackson.newObjectMapper(new CBORFactory())));
     }
 
     /** Create a jdbi object from the drop wizard config */
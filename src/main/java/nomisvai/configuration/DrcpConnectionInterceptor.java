@@ -0,0 +1,168 @@
+package nomisvai.configuration;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import oracle.jdbc.OracleConnection;
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.JdbcInterceptor;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
+import org.apache.tomcat.jdbc.pool.PoolProperties.InterceptorProperty;
+import org.apache.tomcat.jdbc.pool.PooledConnection;
+
+/**
+ * Pool interceptor used when DRCP is enabled in {@link InMemoryWalletDataSourceFactory}.
+ *
+ * <p>The connections kept by the Dropwizard pool are only connected to the DRCP broker, a server
+ * session is attached on the first call made on a borrowed connection (JDBI opens a handle) and
+ * detached when it is returned (JDBI closes the handle). This lets many service replicas share a
+ * small server-side session pool. Attaching lazily means a failure (a saturated broker for
+ * instance) surfaces as a SQLException to the caller, who still owns the connection and returns
+ * it to the pool by closing it.
+ *
+ * <p>The pool validation queries are disabled in DRCP mode since they would run outside of the
+ * attach/detach window, when validateOnBorrow is set the connection is validated here once
+ * attached, at most once per validationInterval like the pool does.
+ *
+ * <p>The pool creates one instance per connection, the attached and reused meters are looked up
+ * by the name given in the metrics property in the registry registered for that pool with {@link
+ * #registerMetricRegistry}. The reused meter counts attaches that landed on the same server
+ * session as the previous attach of the connection, see {@link
+ * OracleConnection#needToPurgeStatementCache()}.
+ */
+@Slf4j
+public class DrcpConnectionInterceptor extends JdbcInterceptor {
+    public static final String METRICS_PROPERTY = "metrics";
+    public static final String VALIDATE_ON_BORROW_PROPERTY = "validateOnBorrow";
+    private static final String METRIC_REGISTRY_PREFIX = "nomisvai.drcp.";
+
+    private Meter attached;
+    private Meter reused;
+    private boolean validateOnBorrow;
+    private PoolConfiguration poolProperties;
+    private PooledConnection pooledConnection;
+    private OracleConnection oracleConnection;
+    private long lastValidated;
+
+    /**
+     * Makes metricRegistry the registry used by the interceptors of the given pool, replacing the
+     * one of a previous build.
+     */
+    public static void registerMetricRegistry(String poolName, MetricRegistry metricRegistry) {
+        SharedMetricRegistries.remove(METRIC_REGISTRY_PREFIX + poolName);
+        SharedMetricRegistries.add(METRIC_REGISTRY_PREFIX + poolName, metricRegistry);
+    }
+
+    @Override
+    public void setProperties(Map<String, InterceptorProperty> properties) {
+        super.setProperties(properties);
+        InterceptorProperty metrics = properties.get(METRICS_PROPERTY);
+        String name = metrics == null ? "drcp" : metrics.getValue();
+        MetricRegistry metricRegistry =
+                SharedMetricRegistries.getOrCreate(METRIC_REGISTRY_PREFIX + name);
+        attached = metricRegistry.meter(MetricRegistry.name(name, "drcp", "attached"));
+        reused = metricRegistry.meter(MetricRegistry.name(name, "drcp", "reused"));
+
+        InterceptorProperty validate = properties.get(VALIDATE_ON_BORROW_PROPERTY);
+        validateOnBorrow = validate != null && validate.getValueAsBoolean(false);
+    }
+
+    /** Called by the pool on borrow, must not throw or the connection is lost to the pool. */
+    @Override
+    public void reset(ConnectionPool parent, PooledConnection con) {
+        // Called with null arguments when the pool releases the connection
+        poolProperties = parent == null ? null : parent.getPoolProperties();
+        pooledConnection = con;
+        oracleConnection = null;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (compare(CLOSE_VAL, method)) {
+            if (oracleConnection != null) {
+                detach();
+            }
+        } else if (oracleConnection == null
+                && pooledConnection != null
+                && !compare(ISCLOSED_VAL, method)
+                && !compare(TOSTRING_VAL, method)
+                && !compare(EQUALS_VAL, method)
+                && !compare(HASHCODE_VAL, method)) {
+            attachAndValidate();
+        }
+        return super.invoke(proxy, method, args);
+    }
+
+    private void attachAndValidate() throws SQLException {
+        attach();
+        if (!validateOnBorrow) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastValidated < poolProperties.getValidationInterval()) {
+            return;
+        }
+        if (isValid()) {
+            lastValidated = now;
+            return;
+        }
+        // Same as the pool does when a borrowed connection fails validation
+        log.debug("DRCP connection failed validation, reconnecting");
+        detach();
+        try {
+            pooledConnection.reconnect();
+        } catch (SQLException e) {
+            // Dropped by the pool when the caller closes it
+            pooledConnection.setDiscarded(true);
+            throw e;
+        }
+        lastValidated = 0;
+        attach();
+    }
+
+    private void attach() throws SQLException {
+        OracleConnection connection =
+                pooledConnection.getConnection().unwrap(OracleConnection.class);
+        connection.attachServerConnection();
+        oracleConnection = connection;
+        attached.mark();
+        if (!connection.needToPurgeStatementCache()) {
+            reused.mark();
+        }
+    }
+
+    private void detach() {
+        try {
+            oracleConnection.detachServerConnection(null);
+        } catch (SQLException e) {
+            // The connection still goes back to the pool, the broker reclaims the session
+            log.warn("Failed to detach DRCP server connection", e);
+        } finally {
+            oracleConnection = null;
+        }
+    }
+
+    /** Runs the configured validation query, or a ping when none is configured. */
+    private boolean isValid() {
+        int timeout = Math.max(poolProperties.getValidationQueryTimeout(), 0);
+        String validationQuery = poolProperties.getValidationQuery();
+        try {
+            if (validationQuery == null || validationQuery.isEmpty()) {
+                return oracleConnection.isValid(timeout);
+            }
+            try (Statement statement = oracleConnection.createStatement()) {
+                statement.setQueryTimeout(timeout);
+                statement.execute(validationQuery);
+                return true;
+            }
+        } catch (SQLException e) {
+            log.debug("DRCP connection validation failed", e);
+            return false;
+        }
+    }
+}
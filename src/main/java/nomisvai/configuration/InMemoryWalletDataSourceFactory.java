@@ -15,6 +15,10 @@ import java.security.NoSuchAlgorithmException;
 import java.security.UnrecoverableKeyException;
 import java.security.cert.CertificateException;
 import java.util.Base64;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
@@ -22,7 +26,9 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.SneakyThrows;
 import nomisvai.secret.SecretRetriever;
+import oracle.jdbc.OracleConnection;
 import oracle.jdbc.pool.OracleDataSource;
+import org.apache.tomcat.jdbc.pool.PoolConfiguration;
 
 @Getter
 @Setter
@@ -37,12 +43,21 @@ import oracle.jdbc.pool.OracleDataSource;
  * <p>It also overrides the build() method so that the underlying connection pool uses
  * OracleDataSource to create new db connections. The OracleDataSource object used is initialized
  * with a SSL context making use of the in-memory wallet.
+ *
+ * <p>When drcpEnabled is set, connections are made through Database Resident Connection Pooling:
+ * the url is switched to a pooled server, the drcpConnectionClass is set on the connections and a
+ * {@link DrcpConnectionInterceptor} attaches/detaches the server session each time a connection is
+ * borrowed from/returned to the pool (so once per JDBI handle).
  */
 public class InMemoryWalletDataSourceFactory extends DataSourceFactory {
+    private static final Pattern SERVER_TYPE =
+            Pattern.compile("\\(\\s*server\\s*=\\s*\\w+\\s*\\)", Pattern.CASE_INSENSITIVE);
     private final String SECRET_PREFIX_TOKEN = "{SECRET}";
     private String keyStoreBase64;
     private String keyStorePassword;
     private String trustStoreBase64;
+    private boolean drcpEnabled = false;
+    private String drcpConnectionClass = "SampleService";
 
     /** Decoded keyStoreBase64 keystore */
     public byte[] getKeyStore() {
@@ -104,8 +119,18 @@ public class InMemoryWalletDataSourceFactory extends DataSourceFactory {
             dataSource.setDataSourceName("sampleAppDataSource");
             dataSource.setUser(getUser());
             dataSource.setPassword(getPassword());
-            dataSource.setURL(getUrl());
-            dataSource.setConnectionProperties(managedPooledDataSource.getDbProperties());
+            Properties connectionProperties = managedPooledDataSource.getDbProperties();
+            if (drcpEnabled) {
+                dataSource.setURL(toPooledServerUrl(getUrl()));
+                connectionProperties.setProperty(
+                        OracleConnection.CONNECTION_PROPERTY_DRCP_CONNECTION_CLASS,
+                        drcpConnectionClass);
+                configureDrcpPool(managedPooledDataSource, name);
+                DrcpConnectionInterceptor.registerMetricRegistry(name, metricRegistry);
+            } else {
+                dataSource.setURL(getUrl());
+            }
+            dataSource.setConnectionProperties(connectionProperties);
             SSLContext sslContext = buildSSLContext();
             if (sslContext != null) {
                 dataSource.setSSLContext(sslContext);
@@ -117,6 +142,73 @@ public class InMemoryWalletDataSourceFactory extends DataSourceFactory {
         return managedPooledDataSource;
     }
 
+    /**
+     * Makes the url request a pooled (DRCP) server. Connect descriptors get (server=pooled) added
+     * to their connect_data, or replacing their server type (dedicated/shared). Easy connect urls
+     * get the :POOLED suffix before their parameters.
+     */
+    static String toPooledServerUrl(String url) {
+        String lowerCaseUrl = url.toLowerCase(Locale.ROOT).replaceAll("\\s", "");
+        if (lowerCaseUrl.contains("(connect_data=")) {
+            if (lowerCaseUrl.contains("(server=pooled)")) {
+                return url;
+            }
+            Matcher serverType = SERVER_TYPE.matcher(url);
+            if (serverType.find()) {
+                return serverType.replaceFirst("(server=pooled)");
+            }
+            // Locate the same position in the original url, which may contain whitespaces
+            int index = url.toLowerCase(Locale.ROOT).indexOf("connect_data");
+            int insertAt = url.indexOf('=', index) + 1;
+            return url.substring(0, insertAt) + "(server=pooled)" + url.substring(insertAt);
+        }
+
+        int paramsIndex = url.indexOf('?');
+        String address = paramsIndex >= 0 ? url.substring(0, paramsIndex) : url;
+        String params = paramsIndex >= 0 ? url.substring(paramsIndex) : "";
+        if (address.contains("(") || !address.contains("/")) {
+            throw new RuntimeException(
+                    "Cannot enable DRCP on url "
+                            + url
+                            + ", add (server=pooled) to its connect_data");
+        }
+        if (address.toLowerCase(Locale.ROOT).endsWith(":pooled")) {
+            return url;
+        }
+        return address + ":POOLED" + params;
+    }
+
+    /**
+     * Adds the DRCP interceptor to the pool. Validation queries sent by the pool itself run outside
+     * of the attach/detach window and would hold a server session for idle connections, so they
+     * are turned off and the borrow check is done by the interceptor once attached, at most once
+     * per validationInterval.
+     */
+    private void configureDrcpPool(ManagedPooledDataSource managedPooledDataSource, String name) {
+        PoolConfiguration poolProperties = managedPooledDataSource.getPoolProperties();
+        poolProperties.setTestOnConnect(false);
+        poolProperties.setTestWhileIdle(false);
+        poolProperties.setTestOnBorrow(false);
+        poolProperties.setTestOnReturn(false);
+
+        String interceptors = poolProperties.getJdbcInterceptors();
+        String drcpInterceptor =
+                DrcpConnectionInterceptor.class.getName()
+                        + "("
+                        + DrcpConnectionInterceptor.METRICS_PROPERTY
+                        + "="
+                        + name
+                        + ","
+                        + DrcpConnectionInterceptor.VALIDATE_ON_BORROW_PROPERTY
+                        + "="
+                        + isCheckConnectionOnBorrow()
+                        + ")";
+        poolProperties.setJdbcInterceptors(
+                interceptors == null || interceptors.isEmpty()
+                        ? drcpInterceptor
+                        : interceptors + ";" + drcpInterceptor);
+    }
+
     /** Creates a SSLContext with a BCFKS keystore and truststore retrieved from the OCI Vault. */
     private SSLContext buildSSLContext() {
         byte[] keyStoreContent = getKeyStore();
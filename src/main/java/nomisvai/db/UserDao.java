@@ -2,21 +2,33 @@ package nomisvai.db;
 
 import java.util.List;
 import nomisvai.api.User;
-import org.jdbi.v3.sqlobject.config.RegisterBeanMapper;
+import org.jdbi.v3.sqlobject.config.RegisterRowMapper;
 import org.jdbi.v3.sqlobject.customizer.Bind;
-import org.jdbi.v3.sqlobject.customizer.BindBean;
 import org.jdbi.v3.sqlobject.statement.SqlQuery;
 import org.jdbi.v3.sqlobject.statement.SqlUpdate;
 
+/**
+ * Ids are read from the RAW(16) id_raw column, the default methods convert the canonical string
+ * form used by the API before binding. The VARCHAR2 id column is still written until the key swap
+ * of user_raw_id_contract.sql is released.
+ */
 public interface UserDao {
-    @SqlUpdate("INSERT INTO users(id, name) VALUES (:id, :name)")
-    void insert(@BindBean User user);
+    @SqlUpdate("INSERT INTO users(id, id_raw, name) VALUES (:id, :idRaw, :name)")
+    void insert(@Bind("id") String id, @Bind("idRaw") byte[] idRaw, @Bind("name") String name);
 
-    @SqlQuery("SELECT * FROM users ORDER BY name")
-    @RegisterBeanMapper(User.class)
+    default void insert(User user) {
+        insert(user.getId(), UuidV7.toBytes(user.getId()), user.getName());
+    }
+
+    @SqlQuery("SELECT id_raw, name FROM users ORDER BY name")
+    @RegisterRowMapper(UserMapper.class)
     List<User> listUsers();
 
-    @SqlQuery("select id, name from users where id = :id")
-    @RegisterBeanMapper(User.class)
-    User findById(@Bind("id") String id);
+    @SqlQuery("select id_raw, name from users where id_raw = :id")
+    @RegisterRowMapper(UserMapper.class)
+    User findById(@Bind("id") byte[] id);
+
+    default User findById(String id) {
+        return findById(UuidV7.toBytes(id));
+    }
 }
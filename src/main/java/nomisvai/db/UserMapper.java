@@ -0,0 +1,18 @@
+package nomisvai.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import nomisvai.api.User;
+import org.jdbi.v3.core.mapper.RowMapper;
+import org.jdbi.v3.core.statement.StatementContext;
+
+/** Maps a users row, converting the RAW(16) id_raw to its canonical string form. */
+public class UserMapper implements RowMapper<User> {
+    @Override
+    public User map(ResultSet rs, StatementContext ctx) throws SQLException {
+        return User.builder()
+                .id(UuidV7.toString(rs.getBytes("id_raw")))
+                .name(rs.getString("name"))
+                .build();
+    }
+}
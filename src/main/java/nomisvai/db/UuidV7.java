@@ -0,0 +1,58 @@
+package nomisvai.db;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Time-ordered UUIDs (version 7 layout): 48 bits of unix epoch milliseconds followed by random
+ * bits. Consecutive ids land next to each other in the users primary key index instead of being
+ * scattered like random (version 4) UUIDs.
+ *
+ * <p>Ids are stored as RAW(16) in the database and exposed in their canonical string form by the
+ * API, this class converts between both.
+ */
+public final class UuidV7 {
+    // Same pattern as the user_raw_id.sql migration, UUID.fromString also accepts short forms
+    // like 1-1-1-1-1
+    private static final Pattern CANONICAL =
+            Pattern.compile(
+                    "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private UuidV7() {}
+
+    public static UUID generate() {
+        return generate(System.currentTimeMillis());
+    }
+
+    static UUID generate(long epochMillis) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 48 bits timestamp, 4 bits version, 12 random bits
+        long msb = (epochMillis << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        // 2 bits variant, 62 random bits
+        long lsb = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /** Canonical string form to RAW(16), throws IllegalArgumentException if not a valid uuid. */
+    public static byte[] toBytes(String id) {
+        if (id == null || !CANONICAL.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid uuid: " + id);
+        }
+        return toBytes(UUID.fromString(id));
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /** RAW(16) to canonical string form */
+    public static String toString(byte[] id) {
+        ByteBuffer buffer = ByteBuffer.wrap(id);
+        return new UUID(buffer.getLong(), buffer.getLong()).toString();
+    }
+}
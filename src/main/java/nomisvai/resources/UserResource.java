@@ -1,44 +1,76 @@
 package nomisvai.resources;
 
+import com.fasterxml.jackson.jaxrs.cbor.CBORMediaTypes;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
 import java.util.List;
-import java.util.UUID;
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import nomisvai.api.User;
 import nomisvai.db.UserDao;
+import nomisvai.db.UuidV7;
 import org.jdbi.v3.core.Jdbi;
 
+/**
+ * Users api, responses are encoded as json by default. Clients sending an Accept header with the
+ * smile or cbor media type get a binary encoding instead, which is smaller and cheaper to
+ * produce/parse for full listings.
+ */
 @Path("/v1")
-@Produces({"application/json"})
+@Produces({
+    "application/json",
+    SmileMediaTypes.APPLICATION_JACKSON_SMILE,
+    CBORMediaTypes.APPLICATION_JACKSON_CBOR
+})
 public class UserResource {
     private final UserDao userDao;
 
     public UserResource(Jdbi jdbi) {
-        userDao = jdbi.onDemand(UserDao.class);
+        this(jdbi.onDemand(UserDao.class));
+    }
+
+    public UserResource(UserDao userDao) {
+        this.userDao = userDao;
 
         // seed some users if none are present
         if (userDao.listUsers().size() == 0) {
             for (int i = 0; i < 10; i++) {
                 userDao.insert(
-                        User.builder().id(UUID.randomUUID().toString()).name("User" + i).build());
+                        User.builder().id(UuidV7.generate().toString()).name("User" + i).build());
             }
         }
     }
 
     @GET
     @Path("/users")
-    @Produces({"application/json"})
+    @Produces({
+        "application/json",
+        SmileMediaTypes.APPLICATION_JACKSON_SMILE,
+        CBORMediaTypes.APPLICATION_JACKSON_CBOR
+    })
     public List<User> listUsers() {
         return userDao.listUsers();
     }
 
     @POST
     @Path("/users")
-    @Produces({"application/json"})
+    @Produces({
+        "application/json",
+        SmileMediaTypes.APPLICATION_JACKSON_SMILE,
+        CBORMediaTypes.APPLICATION_JACKSON_CBOR
+    })
     public User createUser(User user) {
-        userDao.insert(user);
+        // Generate a time ordered id when none is provided
+        if (user.getId() == null) {
+            user.setId(UuidV7.generate().toString());
+        }
+        try {
+            userDao.insert(user);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid user id: " + user.getId());
+        }
         return userDao.findById(user.getId());
     }
 }
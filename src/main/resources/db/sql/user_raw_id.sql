@@ -0,0 +1,67 @@
+--liquibase formatted sql
+
+-- Expand step of the move of the users key from VARCHAR2(255) to RAW(16), every change here is
+-- online and compatible with replicas still running the previous version:
+-- * id_raw is added next to id, the service reads it and writes both columns.
+-- * A trigger fills id_raw for rows inserted by previous version replicas, which only write id.
+-- * Existing rows are backfilled in batches, each batch is committed.
+-- * The unique index later used by the primary key is built ONLINE.
+-- Ids that are not uuids (only possible through the POST api) get a new id, the old value is kept
+-- in users_legacy_id.
+-- The contract step (user_raw_id_contract.sql) swaps the primary key to id_raw and drops id, it
+-- ships in a later release, once no replica writes users without id_raw.
+
+--changeset sample:user_raw_id_add_column
+ALTER TABLE users ADD (id_raw RAW(16));
+
+--changeset sample:user_raw_id_legacy_table
+CREATE TABLE users_legacy_id
+(
+    legacy_id VARCHAR2(255) NOT NULL,
+    id        RAW(16)       NOT NULL,
+    CONSTRAINT users_legacy_id_pk PRIMARY KEY (legacy_id)
+);
+
+--changeset sample:user_raw_id_trigger splitStatements:false
+--comment: Fills id_raw for rows inserted by replicas that only write id
+CREATE OR REPLACE TRIGGER users_id_raw_trg
+    BEFORE INSERT ON users
+    FOR EACH ROW
+    WHEN (new.id_raw IS NULL)
+BEGIN
+    IF REGEXP_LIKE(:new.id, '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$') THEN
+        :new.id_raw := HEXTORAW(REPLACE(:new.id, '-', ''));
+    ELSE
+        :new.id_raw := SYS_GUID();
+        INSERT INTO users_legacy_id (legacy_id, id) VALUES (:new.id, :new.id_raw);
+    END IF;
+END;
+
+--changeset sample:user_raw_id_legacy_backfill
+--comment: Records a new id for the existing rows whose id is not a uuid, only reads users
+INSERT INTO users_legacy_id (legacy_id, id)
+SELECT id, SYS_GUID()
+FROM users
+WHERE id_raw IS NULL
+  AND NOT REGEXP_LIKE(id, '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$');
+
+--changeset sample:user_raw_id_backfill splitStatements:false runInTransaction:false
+--comment: Backfills id_raw 1000 rows per transaction so rows are not all locked at once
+BEGIN
+    LOOP
+        UPDATE users u
+        SET id_raw = CASE
+                         WHEN REGEXP_LIKE(u.id, '^[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}$')
+                             THEN HEXTORAW(REPLACE(u.id, '-', ''))
+                         ELSE (SELECT l.id FROM users_legacy_id l WHERE l.legacy_id = u.id)
+            END
+        WHERE id_raw IS NULL
+          AND ROWNUM <= 1000;
+        EXIT WHEN SQL%ROWCOUNT = 0;
+        COMMIT;
+    END LOOP;
+    COMMIT;
+END;
+
+--changeset sample:user_raw_id_index
+CREATE UNIQUE INDEX user_id_raw_uk ON users (id_raw) ONLINE;
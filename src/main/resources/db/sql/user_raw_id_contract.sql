@@ -0,0 +1,24 @@
+--liquibase formatted sql
+
+-- Contract step of the move of the users key to RAW(16), see user_raw_id.sql. Not included in
+-- changelog.xml yet: it is added in the release after the one shipping user_raw_id.sql, once
+-- every replica writes id_raw. That release also stops writing id, which is made nullable here so
+-- replicas still on the previous release keep working during the rollout. Dropping id (SET
+-- UNUSED) is left for the release after that.
+-- id_raw uniqueness stays enforced by user_id_raw_uk while the primary key is swapped, the
+-- new primary key is enabled without validation then validated, which does not block DML.
+
+--changeset sample:user_raw_id_contract_drop_trigger
+DROP TRIGGER users_id_raw_trg;
+
+--changeset sample:user_raw_id_contract_drop_pk
+ALTER TABLE users DROP CONSTRAINT user_id_pk DROP INDEX;
+
+--changeset sample:user_raw_id_contract_add_pk
+ALTER TABLE users ADD CONSTRAINT user_id_pk PRIMARY KEY (id_raw) USING INDEX user_id_raw_uk ENABLE NOVALIDATE;
+
+--changeset sample:user_raw_id_contract_validate_pk
+ALTER TABLE users MODIFY CONSTRAINT user_id_pk VALIDATE;
+
+--changeset sample:user_raw_id_contract_nullable_id
+ALTER TABLE users MODIFY (id NULL);
@@ -10,16 +10,20 @@ import java.security.KeyStore;
 import java.security.Security;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManagerFactory;
 import lombok.SneakyThrows;
+import nomisvai.db.UuidV7;
 import oracle.jdbc.OracleConnection;
 import oracle.jdbc.pool.OracleDataSource;
 import oracle.security.pki.OraclePKIProvider;
 import org.bouncycastle.jcajce.provider.BouncyCastleFipsProvider;
 import org.jdbi.v3.core.Jdbi;
+import org.jdbi.v3.core.statement.PreparedBatch;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -126,19 +130,73 @@ class SampleServiceApplicationTest {
         return sslContext;
     }
 
+    @SneakyThrows
+    private static Jdbi createJdbi(SSLContext sslContext) {
+        Properties info = new Properties();
+
+        info.put(OracleConnection.CONNECTION_PROPERTY_USER_NAME, userName);
+        info.put(OracleConnection.CONNECTION_PROPERTY_PASSWORD, userPassword);
+
+        OracleDataSource ods = new OracleDataSource();
+        ods.setSSLContext(sslContext);
+        ods.setURL(activeUrl);
+        ods.setConnectionProperties(info);
+        return Jdbi.create(ods);
+    }
+
+    /**
+     * Fills a scratch table with rows whose id is given by the sql expression prefillId (n is the
+     * row number), then times batch inserts of ids from idSupplier and returns the elapsed time in
+     * ms. The table is dropped afterwards. The prefill size (-DbenchmarkRows) should make the
+     * primary key index larger than the buffer cache so that leaf block splits and cache misses
+     * show up like on a real table.
+     */
+    private static long insertBenchmark(
+            Jdbi jdbi, String idType, String prefillId, Supplier<Object> idSupplier) {
+        final long prefillRows = Long.getLong("benchmarkRows", 5_000_000L);
+        final int batches = 40;
+        final int batchSize = 500;
+        return jdbi.withHandle(
+                handle -> {
+                    handle.execute(
+                            "CREATE TABLE users_bench (id "
+                                    + idType
+                                    + " NOT NULL, name VARCHAR2(255) NOT NULL,"
+                                    + " CONSTRAINT users_bench_pk PRIMARY KEY (id))");
+                    try {
+                        // Row generator: 1000 x (prefillRows / 1000) rows
+                        handle.execute(
+                                "INSERT /*+ APPEND */ INTO users_bench(id, name)"
+                                        + " SELECT "
+                                        + prefillId
+                                        + ", 'User' || n FROM (SELECT (b - 1) * 1000 + a n FROM"
+                                        + " (SELECT level a FROM dual CONNECT BY level <= 1000),"
+                                        + " (SELECT level b FROM dual CONNECT BY level <= "
+                                        + Math.max(prefillRows / 1000, 1)
+                                        + "))");
+
+                        long start = System.currentTimeMillis();
+                        for (int i = 0; i < batches; i++) {
+                            PreparedBatch batch =
+                                    handle.prepareBatch(
+                                            "INSERT INTO users_bench(id, name)"
+                                                    + " VALUES (:id, :name)");
+                            for (int j = 0; j < batchSize; j++) {
+                                batch.bind("id", idSupplier.get()).bind("name", "User" + j).add();
+                            }
+                            batch.execute();
+                        }
+                        return System.currentTimeMillis() - start;
+                    } finally {
+                        handle.execute("DROP TABLE users_bench PURGE");
+                    }
+                });
+    }
+
     private static void jdbiTest(SSLContext sslContext) throws Exception {
         long start = System.currentTimeMillis();
         try {
-            Properties info = new Properties();
-
-            info.put(OracleConnection.CONNECTION_PROPERTY_USER_NAME, userName);
-            info.put(OracleConnection.CONNECTION_PROPERTY_PASSWORD, userPassword);
-
-            OracleDataSource ods = new OracleDataSource();
-            ods.setSSLContext(sslContext);
-            ods.setURL(activeUrl);
-            ods.setConnectionProperties(info);
-            Jdbi jdbi = Jdbi.create(ods);
+            Jdbi jdbi = createJdbi(sslContext);
             jdbi.withHandle(
                     handle -> {
                         return handle.createQuery("SELECT 1 FROM dual").mapTo(String.class).first();
@@ -203,6 +261,60 @@ class SampleServiceApplicationTest {
         System.out.println("Connected successfully using BCFKS");
     }
 
+    /**
+     * Compares the insert throughput into a large table of random (v4) uuid keys stored as
+     * VARCHAR2, random keys stored as RAW(16) and time ordered (UuidV7) keys stored as RAW(16), so
+     * the storage format and the key ordering are measured separately.
+     */
+    @Test
+    public void userIdInsertBenchmark() throws Exception {
+        if (!Boolean.getBoolean("benchmark")) {
+            System.out.println("userIdInsertBenchmark disabled, run with -Dbenchmark=true");
+            return;
+        }
+        byte[] keyStore = readBytes(walletDir + "keystore.bcfks");
+        byte[] trustStore = readBytes(walletDir + "truststore.bcfks");
+        if (initFailed || keyStore == null || trustStore == null) {
+            System.out.println("userIdInsertBenchmark disabled, missing info");
+            return;
+        }
+
+        Jdbi jdbi =
+                createJdbi(
+                        createSSLContextBcfks(
+                                new ByteArrayInputStream(keyStore),
+                                new ByteArrayInputStream(trustStore)));
+        // Random 16 bytes per row number, and the same made time ordered by prefixing the row
+        // number (older than any id generated now)
+        String randomRaw = "STANDARD_HASH(TO_CHAR(n), 'MD5')";
+        String randomString =
+                "LOWER(REGEXP_REPLACE(RAWTOHEX("
+                        + randomRaw
+                        + "), '(.{8})(.{4})(.{4})(.{4})(.{12})', '\\1-\\2-\\3-\\4-\\5'))";
+        String orderedRaw =
+                "HEXTORAW(LPAD(TO_CHAR(n, 'FMXXXXXXXXXXXX'), 12, '0') || SUBSTR(RAWTOHEX("
+                        + randomRaw
+                        + "), 13))";
+
+        long varchar2Random =
+                insertBenchmark(
+                        jdbi, "VARCHAR2(255)", randomString, () -> UUID.randomUUID().toString());
+        long raw16Random =
+                insertBenchmark(
+                        jdbi, "RAW(16)", randomRaw, () -> UuidV7.toBytes(UUID.randomUUID()));
+        long raw16Ordered =
+                insertBenchmark(
+                        jdbi, "RAW(16)", orderedRaw, () -> UuidV7.toBytes(UuidV7.generate()));
+        System.out.println(
+                "VARCHAR2(255) random uuid: "
+                        + varchar2Random
+                        + "ms, RAW(16) random uuid: "
+                        + raw16Random
+                        + "ms, RAW(16) uuid v7: "
+                        + raw16Ordered
+                        + "ms");
+    }
+
     @Test
     public void cwalletSsoTest() throws Exception {
         byte[] keyStore = readBytes(walletDir + "cwallet.sso");
@@ -0,0 +1,253 @@
+package nomisvai.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.codahale.metrics.MetricRegistry;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import oracle.jdbc.OracleConnection;
+import org.apache.tomcat.jdbc.pool.ConnectionPool;
+import org.apache.tomcat.jdbc.pool.JdbcInterceptor;
+import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.apache.tomcat.jdbc.pool.PoolProperties.InterceptorProperty;
+import org.apache.tomcat.jdbc.pool.PooledConnection;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DrcpConnectionInterceptorTest {
+    private static final Method CLOSE = method("close");
+    private static final Method GET_AUTO_COMMIT = method("getAutoCommit");
+
+    private final MetricRegistry metricRegistry = new MetricRegistry();
+    private final PoolProperties poolProperties = new PoolProperties();
+    private final List<String> calls = new ArrayList<>();
+    private final List<String> forwarded = new ArrayList<>();
+    private ConnectionPool pool;
+    private DrcpConnectionInterceptor interceptor;
+    private StubPooledConnection pooledConnection;
+    private boolean failAttach;
+    private boolean failValidation;
+    private boolean failReconnect;
+
+    private static Method method(String name) {
+        try {
+            return Connection.class.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /** OracleConnection recording the DRCP calls made on it */
+    private OracleConnection stubOracleConnection() {
+        return (OracleConnection)
+                Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[] {OracleConnection.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "unwrap":
+                                    return proxy;
+                                case "attachServerConnection":
+                                    calls.add("attach");
+                                    if (failAttach) {
+                                        throw new SQLException("DRCP broker saturated");
+                                    }
+                                    return true;
+                                case "detachServerConnection":
+                                    calls.add("detach");
+                                    return null;
+                                case "needToPurgeStatementCache":
+                                    return false;
+                                case "createStatement":
+                                    return stubStatement();
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+
+    private Statement stubStatement() {
+        return (Statement)
+                Proxy.newProxyInstance(
+                        getClass().getClassLoader(),
+                        new Class<?>[] {Statement.class},
+                        (proxy, method, args) -> {
+                            switch (method.getName()) {
+                                case "execute":
+                                    calls.add("validate");
+                                    if (failValidation) {
+                                        throw new SQLException("Connection reset");
+                                    }
+                                    return true;
+                                case "setQueryTimeout":
+                                case "close":
+                                    return null;
+                                default:
+                                    throw new UnsupportedOperationException(method.getName());
+                            }
+                        });
+    }
+
+    private class StubPooledConnection extends PooledConnection {
+        private Connection connection = stubOracleConnection();
+
+        StubPooledConnection() {
+            super(poolProperties, pool);
+        }
+
+        @Override
+        public Connection getConnection() {
+            return connection;
+        }
+
+        @Override
+        public void reconnect() throws SQLException {
+            calls.add("reconnect");
+            if (failReconnect) {
+                throw new SQLException("Cannot connect");
+            }
+            failValidation = false;
+            connection = stubOracleConnection();
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        poolProperties.setValidationQuery("select 1 from dual");
+        poolProperties.setValidationInterval(30000);
+        // No connection is created by the pool, the stub below is handed to the interceptor
+        poolProperties.setInitialSize(0);
+        poolProperties.setMinIdle(0);
+        poolProperties.setJmxEnabled(false);
+        try {
+            pool = new ConnectionPool(poolProperties);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        DrcpConnectionInterceptor.registerMetricRegistry("db", metricRegistry);
+
+        Map<String, InterceptorProperty> properties = new HashMap<>();
+        properties.put("metrics", new InterceptorProperty("metrics", "db"));
+        properties.put("validateOnBorrow", new InterceptorProperty("validateOnBorrow", "true"));
+        interceptor = new DrcpConnectionInterceptor();
+        interceptor.setProperties(properties);
+        interceptor.setNext(
+                new JdbcInterceptor() {
+                    @Override
+                    public void reset(ConnectionPool parent, PooledConnection con) {}
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        forwarded.add(method.getName());
+                        return null;
+                    }
+                });
+        pooledConnection = new StubPooledConnection();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pool.close(true);
+    }
+
+    @Test
+    public void attachOnFirstCallDetachOnClose() throws Throwable {
+        interceptor.reset(pool, pooledConnection);
+        // Nothing attached until the connection is used
+        assertTrue(calls.isEmpty());
+
+        interceptor.invoke(null, GET_AUTO_COMMIT, null);
+        interceptor.invoke(null, GET_AUTO_COMMIT, null);
+        interceptor.invoke(null, CLOSE, null);
+
+        assertEquals(Arrays.asList("attach", "validate", "detach"), calls);
+        assertEquals(Arrays.asList("getAutoCommit", "getAutoCommit", "close"), forwarded);
+        assertEquals(1, metricRegistry.meter("db.drcp.attached").getCount());
+        assertEquals(1, metricRegistry.meter("db.drcp.reused").getCount());
+    }
+
+    @Test
+    public void validationIntervalIsApplied() throws Throwable {
+        for (int i = 0; i < 2; i++) {
+            interceptor.reset(pool, pooledConnection);
+            interceptor.invoke(null, GET_AUTO_COMMIT, null);
+            interceptor.invoke(null, CLOSE, null);
+        }
+        assertEquals(Arrays.asList("attach", "validate", "detach", "attach", "detach"), calls);
+    }
+
+    @Test
+    public void closeWithoutUseDoesNotAttach() throws Throwable {
+        interceptor.reset(pool, pooledConnection);
+        interceptor.invoke(null, CLOSE, null);
+
+        assertTrue(calls.isEmpty());
+        assertEquals(Arrays.asList("close"), forwarded);
+    }
+
+    @Test
+    public void reconnectOnFailedValidation() throws Throwable {
+        failValidation = true;
+        interceptor.reset(pool, pooledConnection);
+        interceptor.invoke(null, GET_AUTO_COMMIT, null);
+        interceptor.invoke(null, CLOSE, null);
+
+        assertEquals(
+                Arrays.asList("attach", "validate", "detach", "reconnect", "attach", "detach"),
+                calls);
+        assertFalse(pooledConnection.isDiscarded());
+    }
+
+    @Test
+    public void failedReconnectDiscardsConnection() throws Throwable {
+        failValidation = true;
+        failReconnect = true;
+        interceptor.reset(pool, pooledConnection);
+        assertThrows(SQLException.class, () -> interceptor.invoke(null, GET_AUTO_COMMIT, null));
+        interceptor.invoke(null, CLOSE, null);
+
+        assertTrue(pooledConnection.isDiscarded());
+        // The close still reaches the pool
+        assertEquals(Arrays.asList("close"), forwarded);
+    }
+
+    @Test
+    public void failedAttachSurfacesToCallerWhoCanClose() throws Throwable {
+        failAttach = true;
+        interceptor.reset(pool, pooledConnection);
+        assertThrows(SQLException.class, () -> interceptor.invoke(null, GET_AUTO_COMMIT, null));
+        interceptor.invoke(null, CLOSE, null);
+
+        // Nothing to detach, the connection goes back to the pool
+        assertEquals(Arrays.asList("attach"), calls);
+        assertEquals(Arrays.asList("close"), forwarded);
+        assertEquals(0, metricRegistry.meter("db.drcp.attached").getCount());
+    }
+
+    @Test
+    public void metricsGoToTheLatestRegisteredRegistry() throws Throwable {
+        MetricRegistry rebuiltRegistry = new MetricRegistry();
+        DrcpConnectionInterceptor.registerMetricRegistry("db", rebuiltRegistry);
+        Map<String, InterceptorProperty> properties = new HashMap<>();
+        properties.put("metrics", new InterceptorProperty("metrics", "db"));
+        interceptor.setProperties(properties);
+
+        interceptor.reset(pool, pooledConnection);
+        interceptor.invoke(null, GET_AUTO_COMMIT, null);
+
+        assertEquals(1, rebuiltRegistry.meter("db.drcp.attached").getCount());
+        assertEquals(0, metricRegistry.meter("db.drcp.attached").getCount());
+    }
+}
@@ -0,0 +1,82 @@
+package nomisvai.configuration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class InMemoryWalletDataSourceFactoryTest {
+    @Test
+    public void descriptorGetsPooledServer() {
+        assertEquals(
+                "jdbc:oracle:thin:@(description=(address=(protocol=tcps)(port=1522)(host=h))"
+                        + "(connect_data=(server=pooled)(service_name=svc)))",
+                InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                        "jdbc:oracle:thin:@(description=(address=(protocol=tcps)(port=1522)"
+                                + "(host=h))(connect_data=(service_name=svc)))"));
+    }
+
+    @Test
+    public void descriptorWithWhitespacesAndMixedCase() {
+        assertEquals(
+                "jdbc:oracle:thin:@(DESCRIPTION = (ADDRESS = (HOST = h))"
+                        + " (Connect_Data =(server=pooled) (SERVICE_NAME = svc)))",
+                InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                        "jdbc:oracle:thin:@(DESCRIPTION = (ADDRESS = (HOST = h))"
+                                + " (Connect_Data = (SERVICE_NAME = svc)))"));
+    }
+
+    @Test
+    public void descriptorAlreadyPooled() {
+        String url =
+                "jdbc:oracle:thin:@(description=(address=(host=h))"
+                        + "(CONNECT_DATA=(SERVER = POOLED)(service_name=svc)))";
+        assertEquals(url, InMemoryWalletDataSourceFactory.toPooledServerUrl(url));
+    }
+
+    @Test
+    public void descriptorServerTypeIsReplaced() {
+        assertEquals(
+                "jdbc:oracle:thin:@(description=(address=(host=h))"
+                        + "(connect_data=(service_name=svc)(server=pooled)))",
+                InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                        "jdbc:oracle:thin:@(description=(address=(host=h))"
+                                + "(connect_data=(service_name=svc)(SERVER = dedicated)))"));
+    }
+
+    @Test
+    public void easyConnect() {
+        assertEquals(
+                "jdbc:oracle:thin:@tcps://h:1522/svc:POOLED",
+                InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                        "jdbc:oracle:thin:@tcps://h:1522/svc"));
+    }
+
+    @Test
+    public void easyConnectWithParameters() {
+        assertEquals(
+                "jdbc:oracle:thin:@tcps://h:1522/svc:POOLED?wallet_location=/tmp/w&x=y",
+                InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                        "jdbc:oracle:thin:@tcps://h:1522/svc?wallet_location=/tmp/w&x=y"));
+    }
+
+    @Test
+    public void easyConnectAlreadyPooled() {
+        String url = "jdbc:oracle:thin:@tcps://h:1522/svc:pooled?wallet_location=/tmp/w";
+        assertEquals(url, InMemoryWalletDataSourceFactory.toPooledServerUrl(url));
+    }
+
+    @Test
+    public void tnsAliasIsRejected() {
+        assertThrows(
+                RuntimeException.class,
+                () ->
+                        InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                                "jdbc:oracle:thin:@db_high"));
+        assertThrows(
+                RuntimeException.class,
+                () ->
+                        InMemoryWalletDataSourceFactory.toPooledServerUrl(
+                                "jdbc:oracle:thin:@db_high?TNS_ADMIN=/tmp/wallet"));
+    }
+}
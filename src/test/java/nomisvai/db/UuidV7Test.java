@@ -0,0 +1,78 @@
+package nomisvai.db;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class UuidV7Test {
+    /** Compares the bytes the way the database orders RAW values (unsigned) */
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int result = Integer.compare(a[i] & 0xFF, b[i] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void versionAndVariant() {
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = UuidV7.generate();
+            assertEquals(7, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void timestampInMostSignificantBits() {
+        long epochMillis = 1790000000000L;
+        assertEquals(epochMillis, UuidV7.generate(epochMillis).getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    public void roundTrip() {
+        UUID uuid = UuidV7.generate();
+        byte[] bytes = UuidV7.toBytes(uuid.toString());
+        assertEquals(16, bytes.length);
+        assertArrayEquals(UuidV7.toBytes(uuid), bytes);
+        assertEquals(uuid.toString(), UuidV7.toString(bytes));
+        // Upper case input comes back in the canonical lower case form
+        String upperCase = uuid.toString().toUpperCase();
+        assertEquals(uuid.toString(), UuidV7.toString(UuidV7.toBytes(upperCase)));
+    }
+
+    @Test
+    public void bytesIncreaseAcrossMilliseconds() {
+        long epochMillis = 1790000000000L;
+        byte[] previous = UuidV7.toBytes(UuidV7.generate(epochMillis));
+        for (int i = 1; i < 1000; i++) {
+            byte[] next = UuidV7.toBytes(UuidV7.generate(epochMillis + i));
+            assertTrue(compareUnsigned(previous, next) < 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void malformedIdsAreRejected() {
+        for (String id :
+                new String[] {
+                    null,
+                    "",
+                    "1-1-1-1-1",
+                    "not-a-uuid",
+                    "0192d5f6a1b27c3d8e4f5a6b7c8d9e0f",
+                    "0192d5f6-a1b2-7c3d-8e4f-5a6b7c8d9e0",
+                    "0192d5f6-a1b2-7c3d-8e4f-5a6b7c8d9e0f0",
+                    "0192d5f6-a1b2-7c3d-8e4f-5a6b7c8d9e0g",
+                    "{0192d5f6-a1b2-7c3d-8e4f-5a6b7c8d9e0f}"
+                }) {
+            assertThrows(IllegalArgumentException.class, () -> UuidV7.toBytes(id), "" + id);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package nomisvai.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+import nomisvai.api.User;
+import nomisvai.db.UserDao;
+import nomisvai.db.UuidV7;
+
+/** In memory dao returning a fixed listing, so UserResource does not seed users. */
+class FixedUserDao implements UserDao {
+    private final List<User> users = new ArrayList<>();
+
+    FixedUserDao(int userCount) {
+        for (int i = 0; i < userCount; i++) {
+            users.add(User.builder().id(UuidV7.generate().toString()).name("User" + i).build());
+        }
+    }
+
+    @Override
+    public void insert(String id, byte[] idRaw, String name) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<User> listUsers() {
+        return users;
+    }
+
+    @Override
+    public User findById(byte[] id) {
+        throw new UnsupportedOperationException();
+    }
+}
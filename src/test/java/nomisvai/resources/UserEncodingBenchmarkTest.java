@@ -0,0 +1,93 @@
+package nomisvai.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.jaxrs.cbor.CBORMediaTypes;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.zip.GZIPOutputStream;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import lombok.SneakyThrows;
+import nomisvai.SampleServiceApplication;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * Compares the payload size and the CPU time per GET /v1/users request for each encoding
+ * supported by UserResource, with a listing of 1000 users. Requests go through Jersey (content
+ * negotiation, the providers registered by the service) using the in-memory test container, which
+ * handles them on the calling thread so its CPU time is the server CPU time plus a small client
+ * overhead.
+ *
+ * <p>The in-memory container has no Jetty gzip handler, the gzip columns add the cost of gzipping
+ * the response body with the JDK deflater at the default level, which is what the handler does.
+ *
+ * <p>Only runs with -Dbenchmark=true.
+ */
+@ExtendWith(DropwizardExtensionsSupport.class)
+class UserEncodingBenchmarkTest {
+    private static final int USER_COUNT = 1000;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 500;
+
+    private static final ResourceExtension RESOURCES = buildResources();
+
+    private static ResourceExtension buildResources() {
+        ResourceExtension.Builder builder =
+                ResourceExtension.builder()
+                        .addResource(new UserResource(new FixedUserDao(USER_COUNT)));
+        SampleServiceApplication.binaryEncodingProviders().forEach(builder::addProvider);
+        return builder.build();
+    }
+
+    @SneakyThrows
+    private static byte[] get(String mediaType, boolean gzip) {
+        Response response = RESOURCES.target("/v1/users").request(mediaType).get();
+        assertEquals(MediaType.valueOf(mediaType), response.getMediaType());
+        byte[] body = response.readEntity(byte[].class);
+        if (!gzip) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(out)) {
+            gzipStream.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static void benchmark(String mediaType, boolean gzip) {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            get(mediaType, gzip);
+        }
+        int size = 0;
+        long start = threadMXBean.getCurrentThreadCpuTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            size = get(mediaType, gzip).length;
+        }
+        long cpuMicrosPerRequest =
+                (threadMXBean.getCurrentThreadCpuTime() - start) / ITERATIONS / 1000;
+        System.out.println(
+                String.format(
+                        "%-28s %8d bytes %6dus cpu/request",
+                        mediaType + (gzip ? " + gzip" : ""), size, cpuMicrosPerRequest));
+    }
+
+    @Test
+    public void encodingBenchmark() {
+        if (!Boolean.getBoolean("benchmark")) {
+            System.out.println("encodingBenchmark disabled, run with -Dbenchmark=true");
+            return;
+        }
+        for (boolean gzip : new boolean[] {false, true}) {
+            benchmark(MediaType.APPLICATION_JSON, gzip);
+            benchmark(SmileMediaTypes.APPLICATION_JACKSON_SMILE, gzip);
+            benchmark(CBORMediaTypes.APPLICATION_JACKSON_CBOR, gzip);
+        }
+    }
+}
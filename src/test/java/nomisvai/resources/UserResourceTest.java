@@ -0,0 +1,80 @@
+package nomisvai.resources;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.jaxrs.cbor.CBORMediaTypes;
+import com.fasterxml.jackson.jaxrs.smile.SmileMediaTypes;
+import io.dropwizard.jackson.Jackson;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import io.dropwizard.testing.junit5.ResourceExtension;
+import java.util.List;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import lombok.SneakyThrows;
+import nomisvai.SampleServiceApplication;
+import nomisvai.api.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/** Checks the encodings negotiated by UserResource with the providers the service registers. */
+@ExtendWith(DropwizardExtensionsSupport.class)
+class UserResourceTest {
+    private static final FixedUserDao USER_DAO = new FixedUserDao(3);
+
+    private static final ResourceExtension RESOURCES = buildResources();
+
+    private static ResourceExtension buildResources() {
+        ResourceExtension.Builder builder =
+                ResourceExtension.builder().addResource(new UserResource(USER_DAO));
+        SampleServiceApplication.binaryEncodingProviders().forEach(builder::addProvider);
+        return builder.build();
+    }
+
+    @SneakyThrows
+    private static void assertUsers(Response response, MediaType mediaType, JsonFactory factory) {
+        assertEquals(200, response.getStatus());
+        assertEquals(mediaType, response.getMediaType());
+        List<User> users =
+                Jackson.newObjectMapper(factory)
+                        .readValue(
+                                response.readEntity(byte[].class),
+                                new TypeReference<List<User>>() {});
+        assertEquals(USER_DAO.listUsers(), users);
+    }
+
+    @Test
+    public void listUsersSmile() {
+        Response response =
+                RESOURCES
+                        .target("/v1/users")
+                        .request(SmileMediaTypes.APPLICATION_JACKSON_SMILE)
+                        .get();
+        assertUsers(
+                response,
+                MediaType.valueOf(SmileMediaTypes.APPLICATION_JACKSON_SMILE),
+                new SmileFactory());
+    }
+
+    @Test
+    public void listUsersCbor() {
+        Response response =
+                RESOURCES
+                        .target("/v1/users")
+                        .request(CBORMediaTypes.APPLICATION_JACKSON_CBOR)
+                        .get();
+        assertUsers(
+                response,
+                MediaType.valueOf(CBORMediaTypes.APPLICATION_JACKSON_CBOR),
+                new CBORFactory());
+    }
+
+    @Test
+    public void listUsersDefaultsToJson() {
+        Response response = RESOURCES.target("/v1/users").request(MediaType.WILDCARD).get();
+        assertUsers(response, MediaType.APPLICATION_JSON_TYPE, new JsonFactory());
+    }
+}